@@ -0,0 +1,24 @@
+package com.bfauble;
+
+/**
+ * Reasons a field value could not be converted from its XML data type into its JSON data type.
+ *
+ * @author Bryan Fauble
+ */
+public enum ConversionError {
+	INVALID_INTEGER("Value is not a valid integer"),
+	INVALID_DATE("Value is not a valid MM/DD/YYYY date");
+
+	private final String description;
+
+	ConversionError(String pDescription) {
+		description = pDescription;
+	}
+
+	/**
+	 * @return A human readable description of the error.
+	 */
+	public String getDescription() {
+		return description;
+	}
+}
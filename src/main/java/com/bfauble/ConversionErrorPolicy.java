@@ -0,0 +1,29 @@
+package com.bfauble;
+
+/**
+ * What to do with a field when its value fails to convert. Set per field in the mapping file through the
+ * <code>onConversionError</code> attribute, for example:
+ *
+ * <element xmlName="id" jsonName="patientid" xmlDataType="String" jsonDataType="Integer" onConversionError="reject"/>
+ *
+ * @author Bryan Fauble
+ */
+public enum ConversionErrorPolicy {
+	/**
+	 * Write null for the field. This is the default when the mapping does not set a policy.
+	 */
+	NULL,
+	/**
+	 * Write the <code>defaultValue</code> from the mapping, converted the same way as the field. The mapping fails to
+	 * load if the default is missing or does not convert.
+	 */
+	DEFAULT,
+	/**
+	 * Write the raw value from the XML as is.
+	 */
+	RAW,
+	/**
+	 * Drop the whole record from the JSON and send it to the dead letter sink.
+	 */
+	REJECT
+}
@@ -0,0 +1,16 @@
+package com.bfauble;
+
+import lombok.Value;
+
+/**
+ * A single field value that could not be converted, kept so rejected records can explain why they were rejected.
+ *
+ * @author Bryan Fauble
+ */
+@Value
+public class ConversionFailure {
+	private String xmlPath;
+	private String jsonName;
+	private String rawValue;
+	private ConversionError error;
+}
@@ -0,0 +1,65 @@
+package com.bfauble;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of converting a single field value. Either holds the converted value, or the {@link ConversionError} that
+ * explains why the value could not be converted. Failures do not carry a value so one instance is shared per error.
+ *
+ * @author Bryan Fauble
+ */
+public final class ConversionResult {
+	private static final Map<ConversionError, ConversionResult> FAILURES = new EnumMap<>(ConversionError.class);
+
+	static {
+		for (ConversionError error : ConversionError.values()) {
+			FAILURES.put(error, new ConversionResult(null, error));
+		}
+	}
+
+	private final Object value;
+	private final ConversionError error;
+
+	private ConversionResult(Object pValue, ConversionError pError) {
+		value = pValue;
+		error = pError;
+	}
+
+	/**
+	 * @param pValue The converted value.
+	 * @return A successful result holding the value.
+	 */
+	public static ConversionResult success(Object pValue) {
+		return new ConversionResult(pValue, null);
+	}
+
+	/**
+	 * @param pError The reason the conversion failed.
+	 * @return The shared failed result for the error.
+	 */
+	public static ConversionResult failure(ConversionError pError) {
+		return FAILURES.get(pError);
+	}
+
+	/**
+	 * @return True if the value was converted.
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	/**
+	 * @return The converted value, always null for a failed conversion.
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * @return The reason the conversion failed, null for a successful conversion.
+	 */
+	public ConversionError getError() {
+		return error;
+	}
+}
@@ -1,21 +1,24 @@
 package com.bfauble;
 
-import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
 import org.joda.time.Years;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 
-import java.util.logging.Level;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * Service class to handle converting data from one format to another.
  *
+ * Conversions never throw for bad input. A value that cannot be converted comes back as a failed
+ * {@link ConversionResult} so a feed full of bad values stays as cheap as a clean one.
+ *
  * @author Bryan Fauble
  */
 public class DataConversionService {
-	private static final DateTimeFormatter MM_DD_YYYY_DATE = DateTimeFormat.forPattern("MM/dd/yyyy");
 	private static final Logger LOGGER = Logger.getLogger(DataConversionService.class.getName());
+	private static final RateLimitedLogger RATE_LIMITED_LOGGER = new RateLimitedLogger(LOGGER,
+			DataConversionService.class, 10, TimeUnit.SECONDS);
+	private static final char DATE_SEPARATOR = '/';
 
 	/**
 	 * Handle for converting data from one format to another. All values are coming in from the XML document as a
@@ -23,16 +26,26 @@ public class DataConversionService {
 	 * @param pStartingDataType The starting data type.
 	 * @param pEndingDataType The ending data type.
 	 * @param pValue The value to convert.
-	 * @return The converted object.
+	 * @return The converted object, or null if the value could not be converted.
 	 */
 	public Object convertFieldValue(String pStartingDataType, String pEndingDataType, String pValue) {
+		return convertField(pStartingDataType, pEndingDataType, pValue).getValue();
+	}
+
+	/**
+	 * Same as {@link #convertFieldValue(String, String, String)}, but tells the caller why a value could not be
+	 * converted rather than returning null.
+	 * @param pStartingDataType The starting data type.
+	 * @param pEndingDataType The ending data type.
+	 * @param pValue The value to convert.
+	 * @return The {@link ConversionResult}.
+	 */
+	public ConversionResult convertField(String pStartingDataType, String pEndingDataType, String pValue) {
 		if (pValue == null
 			|| pStartingDataType == null
 			|| pEndingDataType == null) {
-			if (LOGGER.isLoggable(Level.WARNING)) {
-				LOGGER.warning(String.format("One or more fields to convert data is not passed in: %s | %s | %s", pStartingDataType, pEndingDataType, pValue));
-			}
-			return pValue;
+			RATE_LIMITED_LOGGER.warning("convertField", "One or more fields to convert data is not passed in: %s | %s | %s", pStartingDataType, pEndingDataType, pValue);
+			return ConversionResult.success(pValue);
 		}
 
 		//These would probably get moved over to an ENUM to hold all of the actions rather than relying on strings.
@@ -46,47 +59,98 @@ public class DataConversionService {
 			case "BIRTHDAYMM/DD/YYYY":
 				return convertFieldValueFromBirthdayMM_DD_YYYY(pEndingDataType, pValue);
 			default:
-				return pValue;
+				return ConversionResult.success(pValue);
 		}
 	}
 
+	/**
+	 * Whether the result of a conversion depends only on the value being converted, so it can be cached. The age
+	 * calculation depends on todays date as well and would go stale in a long running process.
+	 * @param pStartingDataType The starting data type.
+	 * @param pEndingDataType The ending data type.
+	 * @return True if converting the same value always gives the same result.
+	 */
+	public boolean isCacheable(String pStartingDataType, String pEndingDataType) {
+		return pStartingDataType != null
+			&& pEndingDataType != null
+			&& !"AGECALCULATION".equalsIgnoreCase(pEndingDataType);
+	}
+
 	/**
 	 * Handles all of the paths where the starting data type if a free form String.
 	 * @param pEndingDataType The ending data type.
 	 * @param pValue The value to convert.
 	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
 	 */
-	private Object convertFieldValueFromString(String pEndingDataType, String pValue) {
+	private ConversionResult convertFieldValueFromString(String pEndingDataType, String pValue) {
 		switch (pEndingDataType.toUpperCase()) {
 			case "INTEGER":
 				return convertStringToInteger(pValue);
 			case "STRING":
-				return pValue;
+				return ConversionResult.success(pValue);
 			default:
-				if (LOGGER.isLoggable(Level.INFO)) {
-					LOGGER.warning(String.format("Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue));
-				}
-				return pValue;
+				RATE_LIMITED_LOGGER.warning("convertFieldValueFromString", "Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue);
+				return ConversionResult.success(pValue);
 		}
 	}
 
 	/**
 	 * Handles converting string to integer.
 	 * @param pValue The value to convert.
-	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
+	 * @return The appropriate object the data was converted to, or {@link ConversionError#INVALID_INTEGER}.
 	 */
-	private Integer convertStringToInteger(String pValue) {
-		try {
-			return new Integer(pValue);
-		} catch (NumberFormatException ex) {
+	private ConversionResult convertStringToInteger(String pValue) {
+		final Integer integer = parseInteger(pValue);
+		if (integer == null) {
 			//Depending on business specs this could be a situation we shouldn't default a value and we should stop
-			//processing.
-			if (LOGGER.isLoggable(Level.INFO)) {
-				LOGGER.warning(String.format("Failed to parse integer from string: %s", pValue) + ex.toString());
+			//processing. The mapping decides that through the ConversionErrorPolicy.
+			RATE_LIMITED_LOGGER.warning("convertStringToInteger", "Failed to parse integer from string: %s", pValue);
+			return ConversionResult.failure(ConversionError.INVALID_INTEGER);
+		}
+
+		return ConversionResult.success(integer);
+	}
+
+	/**
+	 * Parses a base 10 integer the same way {@link Integer#parseInt(String)} does, but returns null instead of throwing
+	 * a {@link NumberFormatException}. Building the exception and its stack trace is far more expensive than the parse.
+	 * @param pValue The value to parse.
+	 * @return The parsed integer, or null if the value is not a valid integer.
+	 */
+	private Integer parseInteger(String pValue) {
+		final int length = pValue.length();
+		if (length == 0) {
+			return null;
+		}
+
+		int i = 0;
+		boolean negative = false;
+		final char firstChar = pValue.charAt(0);
+		if (firstChar == '-' || firstChar == '+') {
+			if (length == 1) {
+				return null;
 			}
+			negative = firstChar == '-';
+			i++;
 		}
 
-		return null;
+		//Accumulate negatively so Integer.MIN_VALUE can be parsed without overflowing.
+		final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		final int multiplyMin = limit / 10;
+		int result = 0;
+		for (; i < length; i++) {
+			final int digit = Character.digit(pValue.charAt(i), 10);
+			if (digit < 0 || result < multiplyMin) {
+				return null;
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				return null;
+			}
+			result -= digit;
+		}
+
+		return negative ? result : -result;
 	}
 
 	/**
@@ -95,15 +159,13 @@ public class DataConversionService {
 	 * @param pValue The value to convert.
 	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
 	 */
-	private Object convertFieldValueFromGenderAbbrev(String pEndingDataType, String pValue) {
+	private ConversionResult convertFieldValueFromGenderAbbrev(String pEndingDataType, String pValue) {
 		switch (pEndingDataType.toUpperCase()) {
 			case "GENDERFULL":
-				return convertGenderAbbrevToGenderFull(pValue);
+				return ConversionResult.success(convertGenderAbbrevToGenderFull(pValue));
 			default:
-				if (LOGGER.isLoggable(Level.INFO)) {
-					LOGGER.warning(String.format("Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue));
-				}
-				return pValue;
+				RATE_LIMITED_LOGGER.warning("convertFieldValueFromGenderAbbrev", "Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue);
+				return ConversionResult.success(pValue);
 		}
 	}
 
@@ -118,9 +180,7 @@ public class DataConversionService {
 		} else if ("F".equalsIgnoreCase(pValue)) {
 			return "female";
 		}
-		if (LOGGER.isLoggable(Level.WARNING)) {
-			LOGGER.warning(String.format("Value for gender not implemented for conversion: %s", pValue));
-		}
+		RATE_LIMITED_LOGGER.warning("convertGenderAbbrevToGenderFull", "Value for gender not implemented for conversion: %s", pValue);
 
 		return pValue;
 	}
@@ -131,15 +191,13 @@ public class DataConversionService {
 	 * @param pValue The value to convert.
 	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
 	 */
-	private Object convertFieldValueFromStateFull(String pEndingDataType, String pValue) {
+	private ConversionResult convertFieldValueFromStateFull(String pEndingDataType, String pValue) {
 		switch (pEndingDataType.toUpperCase()) {
 			case "STATEABBREV":
-				return convertStateFullToStateAbbrev(pValue);
+				return ConversionResult.success(convertStateFullToStateAbbrev(pValue));
 			default:
-				if (LOGGER.isLoggable(Level.INFO)) {
-					LOGGER.warning(String.format("Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue));
-				}
-				return pValue;
+				RATE_LIMITED_LOGGER.warning("convertFieldValueFromStateFull", "Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue);
+				return ConversionResult.success(pValue);
 		}
 	}
 
@@ -167,28 +225,88 @@ public class DataConversionService {
 	 * @param pValue The value to convert.
 	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
 	 */
-	private Object convertFieldValueFromBirthdayMM_DD_YYYY(String pEndingDataType, String pValue) {
+	private ConversionResult convertFieldValueFromBirthdayMM_DD_YYYY(String pEndingDataType, String pValue) {
 		switch (pEndingDataType.toUpperCase()) {
 			case "AGECALCULATION":
 				return convertBirthdayMM_DD_YYYYToAge(pValue);
 			default:
-				if (LOGGER.isLoggable(Level.INFO)) {
-					LOGGER.warning(String.format("Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue));
-				}
-				return pValue;
+				RATE_LIMITED_LOGGER.warning("convertFieldValueFromBirthdayMM_DD_YYYY", "Ending data type is not implemented, original value is returned: %s | %s", pEndingDataType, pValue);
+				return ConversionResult.success(pValue);
 		}
 	}
 
 	/**
-	 * Handles parsing the incoming birth date and figures out the years inbetween it and todays date.
+	 * Handles parsing the incoming birth date and figures out the years inbetween it and todays date. The date is
+	 * validated by hand rather than through a formatter, which throws on bad input.
 	 * @param pValue The value to convert.
-	 * @return The appropriate object the data was converted to, or the original value if it was not implemented.
+	 * @return The age in years, or {@link ConversionError#INVALID_DATE}.
+	 */
+	private ConversionResult convertBirthdayMM_DD_YYYYToAge(String pValue) {
+		final int firstSeparator = pValue.indexOf(DATE_SEPARATOR);
+		final int secondSeparator = pValue.indexOf(DATE_SEPARATOR, firstSeparator + 1);
+		if (firstSeparator < 0 || secondSeparator < 0) {
+			RATE_LIMITED_LOGGER.warning("convertBirthdayMM_DD_YYYYToAge", "Failed to parse MM/DD/YYYY date from string: %s", pValue);
+			return ConversionResult.failure(ConversionError.INVALID_DATE);
+		}
+
+		final int month = parseDigits(pValue, 0, firstSeparator, 2);
+		final int day = parseDigits(pValue, firstSeparator + 1, secondSeparator, 2);
+		final int year = parseDigits(pValue, secondSeparator + 1, pValue.length(), 4);
+		if (month < 1 || month > 12
+			|| day < 1 || day > daysInMonth(month, year)
+			|| year < 0) {
+			RATE_LIMITED_LOGGER.warning("convertBirthdayMM_DD_YYYYToAge", "Failed to parse MM/DD/YYYY date from string: %s", pValue);
+			return ConversionResult.failure(ConversionError.INVALID_DATE);
+		}
+
+		//A LocalDate has no time of day, so a birth date whose midnight falls in a daylight saving gap is still valid.
+		final LocalDate birthDay = new LocalDate(year, month, day);
+		final Years age = Years.yearsBetween(birthDay, LocalDate.now());
+
+		return ConversionResult.success(age.getYears());
+	}
+
+	/**
+	 * Parses a run of ASCII digits out of a string.
+	 * @param pValue The string holding the digits.
+	 * @param pStart The index of the first digit.
+	 * @param pEnd The index after the last digit.
+	 * @param pMaxDigits The most digits allowed.
+	 * @return The parsed number, or -1 if the run is empty, too long or holds anything but digits.
 	 */
-	private Integer convertBirthdayMM_DD_YYYYToAge(String pValue) {
-		final DateTime birthDay = MM_DD_YYYY_DATE.parseDateTime(pValue);
-		final Years age = Years.yearsBetween(birthDay, new DateTime());
+	private int parseDigits(String pValue, int pStart, int pEnd, int pMaxDigits) {
+		if (pEnd <= pStart || pEnd - pStart > pMaxDigits) {
+			return -1;
+		}
+
+		int result = 0;
+		for (int i = pStart; i < pEnd; i++) {
+			final char character = pValue.charAt(i);
+			if (character < '0' || character > '9') {
+				return -1;
+			}
+			result = result * 10 + (character - '0');
+		}
+		return result;
+	}
 
-		return age.getYears();
+	/**
+	 * @param pMonth The month, 1 based.
+	 * @param pYear The year.
+	 * @return The number of days in the month.
+	 */
+	private int daysInMonth(int pMonth, int pYear) {
+		switch (pMonth) {
+			case 2:
+				return (pYear % 4 == 0 && pYear % 100 != 0) || pYear % 400 == 0 ? 29 : 28;
+			case 4:
+			case 6:
+			case 9:
+			case 11:
+				return 30;
+			default:
+				return 31;
+		}
 	}
 
 }
@@ -0,0 +1,99 @@
+package com.bfauble;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.w3c.dom.Node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes records rejected during conversion as newline delimited JSON, one record per line. Each line holds the raw
+ * values from the XML record and the reasons the record was rejected, so the record can be fixed and replayed:
+ *
+ * {"mapping":"mapping.xml","record":"patient","values":[{"path":"patient.id","value":"abc"},...],
+ *  "errors":[{"path":"patient.id","jsonName":"patientid","value":"abc","error":"INVALID_INTEGER","reason":"..."}]}
+ *
+ * @author Bryan Fauble
+ */
+public class DeadLetterSink implements Closeable {
+	private static final String PERIOD = ".";
+	private static final String NEW_LINE = "\n";
+
+	private final Writer writer;
+
+	/**
+	 * Constructor.
+	 * @param pWriter The {@link Writer} to write the records to. Closed when the sink is closed.
+	 */
+	public DeadLetterSink(Writer pWriter) {
+		writer = pWriter;
+	}
+
+	/**
+	 * Write a rejected record as a single line.
+	 * @param pMappingName The name of the mapping file the record was converted with.
+	 * @param pRecordNode The XML node of the rejected record.
+	 * @param pConversionFailures The {@link ConversionFailure}s in the record.
+	 * @throws IOException {@link IOException} if the record could not be written.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized void write(String pMappingName, Node pRecordNode, List<ConversionFailure> pConversionFailures)
+			throws IOException {
+		final JSONArray values = new JSONArray();
+		addRawValues(pRecordNode, pRecordNode.getNodeName(), values);
+
+		final JSONArray errors = new JSONArray();
+		for (ConversionFailure conversionFailure : pConversionFailures) {
+			final JSONObject error = new JSONObject();
+			error.put("path", conversionFailure.getXmlPath());
+			error.put("jsonName", conversionFailure.getJsonName());
+			error.put("value", conversionFailure.getRawValue());
+			error.put("error", conversionFailure.getError().name());
+			error.put("reason", conversionFailure.getError().getDescription());
+			errors.add(error);
+		}
+
+		final JSONObject deadLetter = new JSONObject();
+		deadLetter.put("mapping", pMappingName);
+		deadLetter.put("record", pRecordNode.getNodeName());
+		deadLetter.put("values", values);
+		deadLetter.put("errors", errors);
+
+		writer.write(deadLetter.toJSONString());
+		writer.write(NEW_LINE);
+		writer.flush();
+	}
+
+	/**
+	 * Walk the XML record and add the text of every leaf element, mapped or not, along with its path.
+	 * @param pNode The current node.
+	 * @param pPath The path to the current node.
+	 * @param pValues The {@link JSONArray} to add the values to.
+	 */
+	@SuppressWarnings("unchecked")
+	private void addRawValues(Node pNode, String pPath, JSONArray pValues) {
+		boolean hasChildElements = false;
+		for (int i = 0 ; i < pNode.getChildNodes().getLength(); i++) {
+			final Node node = pNode.getChildNodes().item(i);
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				hasChildElements = true;
+				addRawValues(node, pPath + PERIOD + node.getNodeName(), pValues);
+			}
+		}
+
+		if (!hasChildElements) {
+			final JSONObject value = new JSONObject();
+			value.put("path", pPath);
+			value.put("value", pNode.getTextContent());
+			pValues.add(value);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,38 @@
+package com.bfauble;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering the conversion of a single XML document into JSON. This includes loading the
+ * mapping file, parsing the input file and writing the JSON.
+ *
+ * @author Bryan Fauble
+ */
+@Name("com.bfauble.DocumentConversion")
+@Label("Document Conversion")
+@Category({"XML To JSON", "Conversion"})
+@Description("Conversion of an XML document into JSON using a mapping file")
+class DocumentConversionEvent extends jdk.jfr.Event {
+
+	@Label("Mapping Name")
+	String mappingName;
+
+	@Label("Input Name")
+	String inputName;
+
+	@Label("Input Size")
+	@DataAmount
+	long bytes;
+
+	@Label("Record Count")
+	@Description("Number of mapped nodes directly under the root of the input document")
+	int recordCount;
+
+	@Label("Rejected Record Count")
+	@Description("Number of records left out of the JSON because a field rejected them")
+	int rejectedRecordCount;
+}
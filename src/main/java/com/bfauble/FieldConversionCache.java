@@ -0,0 +1,187 @@
+package com.bfauble;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the {@link ConversionResult}s of a single mapped field, keyed by the raw value from the XML.
+ *
+ * Fields like gender or state only ever see a handful of distinct values, so converting them again for every record
+ * is wasted work. Every cache starts out sampling: lookups are counted in windows of {@link #WINDOW_SIZE} and at the
+ * end of each window the hit rate decides whether the cache stays on. A high cardinality field, like an id, never
+ * reaches {@link #MIN_HIT_RATE} and turns the cache off for good, after which lookups cost a single volatile read.
+ *
+ * The map is bounded to {@link #MAX_ENTRIES}. When it is full an arbitrary entry is evicted, a low cardinality field
+ * rarely fills it so a smarter eviction policy is not worth the bookkeeping. Lookups, which is nearly all the traffic
+ * once a field is cached, never block: they are a read of the {@link ConcurrentHashMap} and atomic counters. Puts,
+ * evictions and clearing the map lock a single hash bin at a time while they write it.
+ *
+ * The cached results are only valid for the data types the cache was created for, see {@link #isFor(String, String)}.
+ *
+ * @author Bryan Fauble
+ */
+public class FieldConversionCache {
+	static final int WINDOW_SIZE = 256;
+	static final int MAX_ENTRIES = 64;
+	static final int MAX_KEY_LENGTH = 64;
+	static final double MIN_HIT_RATE = 0.75;
+
+	/**
+	 * Whether the cache is being used.
+	 */
+	public enum State {
+		/**
+		 * Caching values while the first window decides if the field is worth caching.
+		 */
+		SAMPLING,
+		/**
+		 * Caching values, re-checked at the end of every window.
+		 */
+		ENABLED,
+		/**
+		 * The field has too many distinct values to be worth caching.
+		 */
+		DISABLED
+	}
+
+	private final String xmlDataType;
+	private final String jsonDataType;
+	private final ConcurrentMap<String, ConversionResult> conversionResults = new ConcurrentHashMap<>();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final AtomicInteger windowLookups = new AtomicInteger();
+	private final AtomicInteger windowHits = new AtomicInteger();
+	private volatile State state = State.SAMPLING;
+
+	/**
+	 * Constructor.
+	 * @param pXmlDataType The XML data type of the field the results are converted from.
+	 * @param pJsonDataType The JSON data type of the field the results are converted to.
+	 */
+	public FieldConversionCache(String pXmlDataType, String pJsonDataType) {
+		xmlDataType = pXmlDataType;
+		jsonDataType = pJsonDataType;
+	}
+
+	/**
+	 * @param pXmlDataType The XML data type of the field.
+	 * @param pJsonDataType The JSON data type of the field.
+	 * @return True if the cached results were converted between the same data types.
+	 */
+	public boolean isFor(String pXmlDataType, String pJsonDataType) {
+		return Objects.equals(xmlDataType, pXmlDataType) && Objects.equals(jsonDataType, pJsonDataType);
+	}
+
+	/**
+	 * Look up the cached result for a raw value.
+	 * @param pValue The raw value from the XML.
+	 * @return The cached {@link ConversionResult}, or null if the value has to be converted.
+	 */
+	public ConversionResult get(String pValue) {
+		if (state == State.DISABLED || pValue == null) {
+			return null;
+		}
+
+		final ConversionResult conversionResult = conversionResults.get(pValue);
+		if (conversionResult != null) {
+			hitCount.increment();
+			windowHits.incrementAndGet();
+		} else {
+			missCount.increment();
+		}
+
+		if (windowLookups.incrementAndGet() >= WINDOW_SIZE) {
+			evaluateWindow();
+		}
+		return conversionResult;
+	}
+
+	/**
+	 * Cache the result of converting a raw value. Ignored once the cache is disabled, and for values too long to be
+	 * worth holding onto.
+	 * @param pValue The raw value from the XML.
+	 * @param pConversionResult The {@link ConversionResult} for the value.
+	 */
+	public void put(String pValue, ConversionResult pConversionResult) {
+		if (state == State.DISABLED
+			|| pValue == null
+			|| pValue.length() > MAX_KEY_LENGTH) {
+			return;
+		}
+
+		if (conversionResults.size() >= MAX_ENTRIES) {
+			final Iterator<String> iterator = conversionResults.keySet().iterator();
+			if (iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		conversionResults.put(pValue, pConversionResult);
+	}
+
+	/**
+	 * Decide whether the cache stays on based on the hit rate of the window that just finished. Only the thread that
+	 * resets the window makes the decision.
+	 */
+	private void evaluateWindow() {
+		final int lookups = windowLookups.get();
+		if (lookups < WINDOW_SIZE || !windowLookups.compareAndSet(lookups, 0)) {
+			return;
+		}
+
+		final int hits = windowHits.getAndSet(0);
+		if ((double) hits / lookups >= MIN_HIT_RATE) {
+			state = State.ENABLED;
+		} else {
+			state = State.DISABLED;
+			conversionResults.clear();
+		}
+	}
+
+	/**
+	 * @return The current {@link State}.
+	 */
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return The number of lookups answered from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return The number of lookups that had to be converted while the cache was on.
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @return The share of lookups answered from the cache while it was on, 0 if there were none.
+	 */
+	public double getHitRate() {
+		final long hits = getHitCount();
+		final long lookups = hits + getMissCount();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return The number of raw values currently cached.
+	 */
+	public int getSize() {
+		return conversionResults.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("FieldConversionCache(%s -> %s, state=%s, hitCount=%d, missCount=%d, hitRate=%.3f, size=%d)",
+				xmlDataType, jsonDataType, getState(), getHitCount(), getMissCount(), getHitRate(), getSize());
+	}
+}
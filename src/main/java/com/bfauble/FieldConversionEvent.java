@@ -0,0 +1,34 @@
+package com.bfauble;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder event for a single field conversion that took longer than the threshold. The threshold can be
+ * changed in the recording settings, by default only slow conversions are recorded so the event stays cheap on large
+ * documents.
+ *
+ * @author Bryan Fauble
+ */
+@Name("com.bfauble.FieldConversion")
+@Label("Slow Field Conversion")
+@Category({"XML To JSON", "Conversion"})
+@Description("Conversion of a single field value that exceeded the threshold")
+@Threshold("1 ms")
+class FieldConversionEvent extends jdk.jfr.Event {
+
+	@Label("Mapping Name")
+	String mappingName;
+
+	@Label("JSON Name")
+	String jsonName;
+
+	@Label("XML Data Type")
+	String xmlDataType;
+
+	@Label("JSON Data Type")
+	String jsonDataType;
+}
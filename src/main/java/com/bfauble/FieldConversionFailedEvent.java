@@ -0,0 +1,38 @@
+package com.bfauble;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for a field value that could not be converted into the JSON data type. Recordings get
+ * shared for profiling, so only the length of the raw value is recorded, the value itself goes to the
+ * {@link DeadLetterSink}.
+ *
+ * @author Bryan Fauble
+ */
+@Name("com.bfauble.FieldConversionFailed")
+@Label("Failed Field Conversion")
+@Category({"XML To JSON", "Conversion"})
+@Description("Field value that could not be converted into the JSON data type")
+class FieldConversionFailedEvent extends jdk.jfr.Event {
+
+	@Label("Mapping Name")
+	String mappingName;
+
+	@Label("JSON Name")
+	String jsonName;
+
+	@Label("XML Data Type")
+	String xmlDataType;
+
+	@Label("JSON Data Type")
+	String jsonDataType;
+
+	@Label("Raw Value Length")
+	int rawValueLength;
+
+	@Label("Error Code")
+	String errorCode;
+}
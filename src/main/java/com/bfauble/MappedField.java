@@ -1,6 +1,8 @@
 package com.bfauble;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 /**
  * Holds onto all of the information needed to convert an XML field into a JSON field.
@@ -8,6 +10,8 @@ import lombok.Data;
  * @author Bryan Fauble
  */
 @Data
+@EqualsAndHashCode(exclude = "conversionCache")
+@ToString(exclude = "conversionCache")
 public class MappedField {
 	private String xmlName;
 	private String xmlType;
@@ -15,4 +19,12 @@ public class MappedField {
 
 	private String jsonName;
 	private String jsonDataType;
+
+	private ConversionErrorPolicy conversionErrorPolicy = ConversionErrorPolicy.NULL;
+	private String defaultValue;
+	//The defaultValue converted into the JSON data type when the mapping is loaded.
+	private Object convertedDefaultValue;
+
+	//Shared across documents converted with the same mapping, set by the XmlToJsonService for cacheable elements.
+	private FieldConversionCache conversionCache;
 }
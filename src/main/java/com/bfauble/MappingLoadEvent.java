@@ -0,0 +1,29 @@
+package com.bfauble;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering the parse of a mapping file into {@link MappedField}s.
+ *
+ * @author Bryan Fauble
+ */
+@Name("com.bfauble.MappingLoad")
+@Label("Mapping Load")
+@Category({"XML To JSON", "Mapping"})
+@Description("Parse of a mapping file into mapped fields")
+class MappingLoadEvent extends jdk.jfr.Event {
+
+	@Label("Mapping Name")
+	String mappingName;
+
+	@Label("Mapping Size")
+	@DataAmount
+	long bytes;
+
+	@Label("Mapped Field Count")
+	int mappedFieldCount;
+}
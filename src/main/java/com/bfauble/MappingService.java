@@ -31,6 +31,8 @@ public class MappingService {
 	private static final String XML_DATA_TYPE = "xmlDataType";
 	private static final String JSON_NAME = "jsonName";
 	private static final String JSON_DATA_TYPE = "jsonDataType";
+	private static final String ON_CONVERSION_ERROR = "onConversionError";
+	private static final String DEFAULT_VALUE = "defaultValue";
 	private static final String PERIOD = ".";
 
 	static {
@@ -40,6 +42,7 @@ public class MappingService {
 		VALID_NODES.add(OBJECT);
 	}
 	private final DocumentBuilder documentBuilder;
+	private final DataConversionService dataConversionService;
 
 	/**
 	 * Constructor.
@@ -47,6 +50,7 @@ public class MappingService {
 	 */
 	public MappingService() throws ParserConfigurationException {
 		documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		dataConversionService = new DataConversionService();
 	}
 
 	/**
@@ -55,8 +59,12 @@ public class MappingService {
 	 * @param pFile The mapping file to parse.
 	 * @return A map where the key is the directions to each of the nodes. The value is what to do at that node.
 	 * @throws IOException {@link IOException} if there was an issue parsing the file or writing the value
+	 * @throws IllegalArgumentException {@link IllegalArgumentException} if a conversion error policy or default value
+	 * in the mapping is not valid.
 	 */
 	public Map<String, MappedField> buildMappingFile(File pFile) throws IOException, SAXException {
+		final MappingLoadEvent mappingLoadEvent = new MappingLoadEvent();
+		mappingLoadEvent.begin();
 		final Map<String, MappedField> xmlMapping = new HashMap<>();
 		final Document mappingDocument = documentBuilder.parse(pFile);
 		final Element mappingRoot = mappingDocument.getDocumentElement();
@@ -69,6 +77,14 @@ public class MappingService {
 		if (LOGGER.isLoggable(Level.INFO)) {
 			LOGGER.info(xmlMapping.toString());
 		}
+
+		mappingLoadEvent.end();
+		if (mappingLoadEvent.shouldCommit()) {
+			mappingLoadEvent.mappingName = pFile.getName();
+			mappingLoadEvent.bytes = pFile.length();
+			mappingLoadEvent.mappedFieldCount = xmlMapping.size();
+			mappingLoadEvent.commit();
+		}
 		return xmlMapping;
 	}
 
@@ -121,6 +137,8 @@ public class MappingService {
 	 * Sets all of the fields on the POJO in order to know when parsing the actual XML what to do.
 	 * @param pNode The current node.
 	 * @return The {@link MappedField}.
+	 * @throws IllegalArgumentException {@link IllegalArgumentException} if the conversion error policy or default
+	 * value is not valid.
 	 */
 	private MappedField buildMappedField(Node pNode) {
 		final NamedNodeMap namedNodeMap = pNode.getAttributes();
@@ -130,7 +148,64 @@ public class MappingService {
 		mappedField.setXmlDataType(namedNodeMap.getNamedItem(XML_DATA_TYPE).getNodeValue());
 		mappedField.setJsonDataType(namedNodeMap.getNamedItem(JSON_DATA_TYPE).getNodeValue());
 		mappedField.setXmlType(pNode.getNodeName());
+
+		//The conversion error policy and default value are optional, fields without them keep writing null.
+		final Node onConversionError = namedNodeMap.getNamedItem(ON_CONVERSION_ERROR);
+		if (onConversionError != null) {
+			mappedField.setConversionErrorPolicy(buildConversionErrorPolicy(mappedField, onConversionError.getNodeValue()));
+		}
+		final Node defaultValue = namedNodeMap.getNamedItem(DEFAULT_VALUE);
+		if (defaultValue != null) {
+			mappedField.setDefaultValue(defaultValue.getNodeValue());
+		}
+		if (ConversionErrorPolicy.DEFAULT == mappedField.getConversionErrorPolicy()) {
+			mappedField.setConvertedDefaultValue(buildConvertedDefaultValue(mappedField));
+		}
 		return mappedField;
 	}
 
+	/**
+	 * Matches the <code>onConversionError</code> attribute to a {@link ConversionErrorPolicy}, ignoring case.
+	 * @param pMappedField The {@link MappedField} the attribute is on.
+	 * @param pValue The value of the attribute.
+	 * @return The {@link ConversionErrorPolicy}.
+	 * @throws IllegalArgumentException {@link IllegalArgumentException} if the value is not a policy.
+	 */
+	private ConversionErrorPolicy buildConversionErrorPolicy(MappedField pMappedField, String pValue) {
+		final List<String> allowedValues = new ArrayList<>();
+		for (ConversionErrorPolicy conversionErrorPolicy : ConversionErrorPolicy.values()) {
+			if (conversionErrorPolicy.name().equalsIgnoreCase(pValue)) {
+				return conversionErrorPolicy;
+			}
+			allowedValues.add(conversionErrorPolicy.name().toLowerCase());
+		}
+
+		throw new IllegalArgumentException(String.format("Invalid %s \"%s\" on mapped field %s (%s), allowed values are %s",
+				ON_CONVERSION_ERROR, pValue, pMappedField.getXmlName(), pMappedField.getJsonName(), allowedValues));
+	}
+
+	/**
+	 * Converts the <code>defaultValue</code> attribute of a field with the {@link ConversionErrorPolicy#DEFAULT} policy
+	 * once, so a default that can never be written is caught when the mapping is loaded rather than on every failure.
+	 * @param pMappedField The {@link MappedField} with the default policy.
+	 * @return The converted default value.
+	 * @throws IllegalArgumentException {@link IllegalArgumentException} if the default is missing or does not convert.
+	 */
+	private Object buildConvertedDefaultValue(MappedField pMappedField) {
+		if (pMappedField.getDefaultValue() == null) {
+			throw new IllegalArgumentException(String.format("Missing %s on mapped field %s (%s) with %s \"%s\"",
+					DEFAULT_VALUE, pMappedField.getXmlName(), pMappedField.getJsonName(), ON_CONVERSION_ERROR,
+					ConversionErrorPolicy.DEFAULT.name().toLowerCase()));
+		}
+
+		final ConversionResult conversionResult = dataConversionService.convertField(pMappedField.getXmlDataType(),
+				pMappedField.getJsonDataType(), pMappedField.getDefaultValue());
+		if (!conversionResult.isSuccess()) {
+			throw new IllegalArgumentException(String.format("Invalid %s \"%s\" on mapped field %s (%s): %s",
+					DEFAULT_VALUE, pMappedField.getDefaultValue(), pMappedField.getXmlName(), pMappedField.getJsonName(),
+					conversionResult.getError().getDescription()));
+		}
+		return conversionResult.getValue();
+	}
+
 }
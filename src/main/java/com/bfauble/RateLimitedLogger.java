@@ -0,0 +1,105 @@
+package com.bfauble;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wraps a {@link Logger} so that a bad feed repeating the same problem millions of times does not log millions of
+ * lines. Messages are grouped by their format string, the first one is logged and after that at most one per interval
+ * along with how many were suppressed in between. The message is only formatted when it is actually logged, and is
+ * logged with the class and method passed in as its source, so it points at where the value was hit rather than here.
+ *
+ * @author Bryan Fauble
+ */
+public class RateLimitedLogger {
+	private final Logger logger;
+	private final String sourceClassName;
+	private final long intervalNanos;
+	private final LongSupplier nanoClock;
+	private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param pLogger The {@link Logger} to write to.
+	 * @param pSourceClass The class logging through this logger, reported as the source of every message.
+	 * @param pInterval The minimum time between two messages with the same format.
+	 * @param pTimeUnit The {@link TimeUnit} of the interval.
+	 */
+	public RateLimitedLogger(Logger pLogger, Class<?> pSourceClass, long pInterval, TimeUnit pTimeUnit) {
+		this(pLogger, pSourceClass, pInterval, pTimeUnit, System::nanoTime);
+	}
+
+	/**
+	 * Constructor with the clock passed in, for unit testing.
+	 * @param pLogger The {@link Logger} to write to.
+	 * @param pSourceClass The class logging through this logger, reported as the source of every message.
+	 * @param pInterval The minimum time between two messages with the same format.
+	 * @param pTimeUnit The {@link TimeUnit} of the interval.
+	 * @param pNanoClock Returns the current time in nanoseconds, like {@link System#nanoTime()}.
+	 */
+	RateLimitedLogger(Logger pLogger, Class<?> pSourceClass, long pInterval, TimeUnit pTimeUnit, LongSupplier pNanoClock) {
+		logger = pLogger;
+		sourceClassName = pSourceClass.getName();
+		intervalNanos = pTimeUnit.toNanos(pInterval);
+		nanoClock = pNanoClock;
+	}
+
+	/**
+	 * Log a warning, unless a warning with the same format was logged within the interval. The suppressed count covers
+	 * every method using the format.
+	 * @param pSourceMethod The method logging the warning.
+	 * @param pFormat The {@link String#format(String, Object...)} format, also used to group repeated messages.
+	 * @param pArgs The format arguments.
+	 */
+	public void warning(String pSourceMethod, String pFormat, Object... pArgs) {
+		if (!logger.isLoggable(Level.WARNING)) {
+			return;
+		}
+
+		final long now = nanoClock.getAsLong();
+		final Window window = windows.computeIfAbsent(pFormat, key -> new Window(now));
+		final long suppressed = window.tryAcquire(now, intervalNanos);
+		if (suppressed < 0) {
+			return;
+		}
+
+		final String message = String.format(pFormat, pArgs);
+		if (suppressed == 0) {
+			logger.logp(Level.WARNING, sourceClassName, pSourceMethod, message);
+		} else {
+			logger.logp(Level.WARNING, sourceClassName, pSourceMethod,
+					String.format("%s (%d similar messages suppressed)", message, suppressed));
+		}
+	}
+
+	/**
+	 * Tracks when the next message for a single format may be logged and how many were suppressed until then.
+	 */
+	private static final class Window {
+		private final AtomicLong nextLogNanos;
+		private final AtomicLong suppressed = new AtomicLong();
+
+		private Window(long pNowNanos) {
+			nextLogNanos = new AtomicLong(pNowNanos);
+		}
+
+		/**
+		 * @param pNowNanos The current {@link System#nanoTime()}.
+		 * @param pIntervalNanos The minimum time between two messages.
+		 * @return The number of messages suppressed since the last one if this message should be logged, otherwise -1.
+		 */
+		private long tryAcquire(long pNowNanos, long pIntervalNanos) {
+			final long next = nextLogNanos.get();
+			if (pNowNanos - next >= 0 && nextLogNanos.compareAndSet(next, pNowNanos + pIntervalNanos)) {
+				return suppressed.getAndSet(0);
+			}
+			suppressed.incrementAndGet();
+			return -1;
+		}
+	}
+}
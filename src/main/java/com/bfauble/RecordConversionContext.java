@@ -0,0 +1,65 @@
+package com.bfauble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State for the record currently being converted, a record being a mapped node directly under the root of the input
+ * document. Tracks the conversion failures in the record and whether a field rejected it.
+ *
+ * @author Bryan Fauble
+ */
+class RecordConversionContext {
+	private final String mappingName;
+	private List<ConversionFailure> failures;
+	private boolean rejected;
+
+	/**
+	 * Constructor.
+	 * @param pMappingName The name of the mapping file, used when recording events and dead letters.
+	 */
+	RecordConversionContext(String pMappingName) {
+		mappingName = pMappingName;
+	}
+
+	/**
+	 * @return The name of the mapping file.
+	 */
+	String getMappingName() {
+		return mappingName;
+	}
+
+	/**
+	 * Record a field that failed to convert. The list is only created once a failure happens, clean records do not pay
+	 * for it.
+	 * @param pConversionFailure The {@link ConversionFailure}.
+	 */
+	void addFailure(ConversionFailure pConversionFailure) {
+		if (failures == null) {
+			failures = new ArrayList<>();
+		}
+		failures.add(pConversionFailure);
+	}
+
+	/**
+	 * @return The failures in the record so far.
+	 */
+	List<ConversionFailure> getFailures() {
+		return failures == null ? Collections.<ConversionFailure>emptyList() : failures;
+	}
+
+	/**
+	 * Mark the record as rejected, it will be left out of the JSON and sent to the dead letter sink.
+	 */
+	void reject() {
+		rejected = true;
+	}
+
+	/**
+	 * @return True if a field rejected the record.
+	 */
+	boolean isRejected() {
+		return rejected;
+	}
+}
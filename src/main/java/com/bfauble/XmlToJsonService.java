@@ -11,7 +11,12 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * Service class to handle processing incoming XML and converting it into a JSON response.
@@ -24,54 +29,215 @@ public class XmlToJsonService {
 	private static final String OBJECT = "object";
 	private static final String NOT_MAPPED = "notMapped";
 	private static final String PERIOD = ".";
+	private static final String COLON = ":";
+	//Upper bound on the number of field caches kept, mappings loaded from many different paths would grow it forever.
+	private static final int MAX_FIELD_CONVERSION_CACHES = 1024;
+	private static final Logger LOGGER = Logger.getLogger(XmlToJsonService.class.getName());
+	private static final RateLimitedLogger RATE_LIMITED_LOGGER = new RateLimitedLogger(LOGGER,
+			XmlToJsonService.class, 10, TimeUnit.SECONDS);
 
 	private final DocumentBuilder documentBuilder;
 	private final MappingService mappingService;
 	private final ObjectMapper objectMapper;
 	private final DataConversionService dataConversionService;
+	private final DeadLetterSink deadLetterSink;
+	private final ConcurrentMap<String, FieldConversionCache> fieldConversionCaches = new ConcurrentHashMap<>();
 
 	/**
-	 * Constructor.
+	 * Constructor. Records rejected by a {@link ConversionErrorPolicy#REJECT} field are logged and dropped.
 	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
 	 */
 	public XmlToJsonService() throws ParserConfigurationException {
+		this(null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param pDeadLetterSink The {@link DeadLetterSink} records rejected by a {@link ConversionErrorPolicy#REJECT} field
+	 *                        are written to, or null to only log and drop them.
+	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
+	 */
+	public XmlToJsonService(DeadLetterSink pDeadLetterSink) throws ParserConfigurationException {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		documentBuilder = factory.newDocumentBuilder();
 		mappingService = new MappingService();
 		objectMapper = new ObjectMapper();
 		dataConversionService = new DataConversionService();
+		deadLetterSink = pDeadLetterSink;
 	}
 
 	/**
 	 * Handle the creation of JSON from an XML file. This requires an applicable mapping file and applicable XML.
+	 * Records rejected by a {@link ConversionErrorPolicy#REJECT} field are left out of the JSON.
 	 * @param pMappingFile The mapping file.
 	 * @param pInputFile The input file.
 	 * @throws IOException {@link IOException}.
 	 * @throws SAXException {@link SAXException}.
 	 */
 	public String buildXmlToJson(File pMappingFile, File pInputFile) throws IOException, SAXException {
+		final DocumentConversionEvent documentConversionEvent = new DocumentConversionEvent();
+		documentConversionEvent.begin();
 		//These files are currently hard coded - they would come from wherever the source of the XML would be coming from.
-		final Map<String, MappedField> mappingFile = mappingService.buildMappingFile(pMappingFile);
+		final Map<String, MappedField> mappingFile = loadMapping(pMappingFile);
 		final Document inputDocument = documentBuilder.parse(pInputFile);
+		final String mappingName = pMappingFile.getName();
+		final String json = buildJson(mappingFile, inputDocument, mappingName, documentConversionEvent);
+
+		documentConversionEvent.end();
+		if (documentConversionEvent.shouldCommit()) {
+			documentConversionEvent.mappingName = mappingName;
+			documentConversionEvent.inputName = pInputFile.getName();
+			documentConversionEvent.bytes = pInputFile.length();
+			documentConversionEvent.commit();
+		}
+		return json;
+	}
 
-		final Element rootXmlElement = inputDocument.getDocumentElement();
+	/**
+	 * Convert an already parsed input document into JSON with an already built mapping. Package private so the
+	 * allocation tests can measure the conversion without parsing the XML on every iteration.
+	 * @param pMappingFile The mapping file for the XML being parsed.
+	 * @param pInputDocument The parsed input document.
+	 * @param pMappingName The name of the mapping file, used when recording events and dead letters.
+	 * @param pDocumentConversionEvent The {@link DocumentConversionEvent} to set the record counts on.
+	 * @return The JSON.
+	 * @throws IOException {@link IOException} if the JSON or a dead letter could not be written.
+	 */
+	String buildJson(Map<String, MappedField> pMappingFile, Document pInputDocument, String pMappingName,
+					 DocumentConversionEvent pDocumentConversionEvent) throws IOException {
+		final Element rootXmlElement = pInputDocument.getDocumentElement();
 		final JSONObject rootJsonObject = new JSONObject();
+		int recordCount = 0;
+		int rejectedRecordCount = 0;
 
 		for (int i = 0 ; i < rootXmlElement.getChildNodes().getLength(); i++) {
 			final Node node = rootXmlElement.getChildNodes().item(i);
 
 			final String xmlNodeName = node.getNodeName();
-			final MappedField mappedField = mappingFile.get(xmlNodeName);
-			buildJsonFromNode(node, rootJsonObject, "", mappedField, mappingFile);
+			final MappedField mappedField = pMappingFile.get(xmlNodeName);
+			if (mappedField == null) {
+				continue;
+			}
+			recordCount++;
+
+			//Each record is built on its own so a rejected record can be dropped without touching the records before it.
+			final RecordConversionContext recordConversionContext = new RecordConversionContext(pMappingName);
+			final JSONObject recordJsonObject = new JSONObject();
+			buildJsonFromNode(node, recordJsonObject, "", mappedField, pMappingFile, recordConversionContext);
+
+			if (recordConversionContext.isRejected()) {
+				rejectedRecordCount++;
+				rejectRecord(node, recordConversionContext);
+			} else {
+				mergeRecord(recordJsonObject, rootJsonObject);
+			}
 		}
 
 		//If there is only one element under the root JSON and it is 'notMapped' then we can treat this as an
 		//array and print it without a JSON root.
+		final String json;
 		if (rootJsonObject.keySet().size()== 1
 			&& NOT_MAPPED.equals(rootJsonObject.keySet().iterator().next())) {
-			return objectMapper.writeValueAsString(rootJsonObject.values().iterator().next());
+			json = objectMapper.writeValueAsString(rootJsonObject.values().iterator().next());
 		} else {
-			return objectMapper.writeValueAsString(rootJsonObject);
+			json = objectMapper.writeValueAsString(rootJsonObject);
+		}
+
+		pDocumentConversionEvent.recordCount = recordCount;
+		pDocumentConversionEvent.rejectedRecordCount = rejectedRecordCount;
+		return json;
+	}
+
+	/**
+	 * Build the mapping for a mapping file and attach the {@link FieldConversionCache}s to its fields. Package private
+	 * so the allocation tests can drive {@link #convertElementValue} with the same mapping a document gets.
+	 * @param pMappingFile The mapping file.
+	 * @return The mapping, keyed by the path to each node.
+	 * @throws IOException {@link IOException}.
+	 * @throws SAXException {@link SAXException}.
+	 */
+	Map<String, MappedField> loadMapping(File pMappingFile) throws IOException, SAXException {
+		final Map<String, MappedField> mappingFile = mappingService.buildMappingFile(pMappingFile);
+		attachFieldConversionCaches(pMappingFile, mappingFile);
+		return mappingFile;
+	}
+
+	/**
+	 * The mapping is rebuilt for every document, so the {@link FieldConversionCache}s live on this service and are
+	 * attached to the freshly built {@link MappedField}s. That way what was learned about a field carries over to the
+	 * next document converted with the same mapping.
+	 *
+	 * The mapping file can be edited between documents, so a cache built for other data types than the field now has
+	 * is replaced rather than reused. When {@link #MAX_FIELD_CONVERSION_CACHES} is reached all caches are dropped and
+	 * learned again.
+	 * @param pMappingFile The mapping file.
+	 * @param pMappingFields The mapping built from the mapping file.
+	 * @throws IOException {@link IOException} if the canonical path of the mapping file could not be resolved.
+	 */
+	private void attachFieldConversionCaches(File pMappingFile, Map<String, MappedField> pMappingFields) throws IOException {
+		final String mappingPath = pMappingFile.getCanonicalPath();
+		for (Map.Entry<String, MappedField> entry : pMappingFields.entrySet()) {
+			final MappedField mappedField = entry.getValue();
+			final String xmlDataType = mappedField.getXmlDataType();
+			final String jsonDataType = mappedField.getJsonDataType();
+			if (!ELEMENT.equals(mappedField.getXmlType())
+				|| !dataConversionService.isCacheable(xmlDataType, jsonDataType)) {
+				continue;
+			}
+
+			final String cacheKey = mappingPath + COLON + entry.getKey();
+			if (fieldConversionCaches.size() >= MAX_FIELD_CONVERSION_CACHES
+				&& !fieldConversionCaches.containsKey(cacheKey)) {
+				fieldConversionCaches.clear();
+			}
+			mappedField.setConversionCache(fieldConversionCaches.compute(cacheKey,
+					(key, existingCache) -> existingCache != null && existingCache.isFor(xmlDataType, jsonDataType)
+							? existingCache
+							: new FieldConversionCache(xmlDataType, jsonDataType)));
+		}
+	}
+
+	/**
+	 * Hit rate statistics of the conversion cache for every cacheable mapped field converted so far.
+	 * @return The {@link FieldConversionCache}s keyed by the canonical mapping file path and the path to the field, for
+	 * example <code>/opt/converter/mapping.xml:patient.gender</code>.
+	 */
+	public Map<String, FieldConversionCache> getFieldConversionCaches() {
+		return Collections.unmodifiableMap(fieldConversionCaches);
+	}
+
+	/**
+	 * Merge a converted record into the root JSON. Records converted into the same JSON array are appended to it,
+	 * everything else is put onto the root.
+	 * @param pRecordJsonObject The {@link JSONObject} the record was converted into.
+	 * @param pRootJsonObject The root {@link JSONObject}.
+	 */
+	@SuppressWarnings("unchecked")
+	private void mergeRecord(JSONObject pRecordJsonObject, JSONObject pRootJsonObject) {
+		for (Object entryObject : pRecordJsonObject.entrySet()) {
+			final Map.Entry<Object, Object> entry = (Map.Entry<Object, Object>) entryObject;
+			final Object existingValue = pRootJsonObject.get(entry.getKey());
+			if (existingValue instanceof JSONArray && entry.getValue() instanceof JSONArray) {
+				((JSONArray) existingValue).addAll((JSONArray) entry.getValue());
+			} else {
+				pRootJsonObject.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Send a rejected record to the {@link DeadLetterSink}, if there is one.
+	 * @param pRecordNode The XML node of the rejected record.
+	 * @param pRecordConversionContext The {@link RecordConversionContext} of the rejected record.
+	 * @throws IOException {@link IOException} if the record could not be written to the dead letter sink.
+	 */
+	private void rejectRecord(Node pRecordNode, RecordConversionContext pRecordConversionContext) throws IOException {
+		RATE_LIMITED_LOGGER.warning("rejectRecord", "Record rejected during conversion with mapping %s: %s | %s",
+				pRecordConversionContext.getMappingName(), pRecordNode.getNodeName(),
+				pRecordConversionContext.getFailures());
+		if (deadLetterSink != null) {
+			deadLetterSink.write(pRecordConversionContext.getMappingName(), pRecordNode,
+					pRecordConversionContext.getFailures());
 		}
 	}
 
@@ -86,10 +252,13 @@ public class XmlToJsonService {
 	 * @param pCurrentPositionInTree The current position in the XML tree that we are parsing.
 	 * @param pMappedField The {@link MappedField} for the current position in the tree.
 	 * @param pMappingFile The mapping file for the current XML being parsed.
+	 * @param pRecordConversionContext The {@link RecordConversionContext} for the record being converted.
 	 */
 	private void buildJsonFromNode(Node pNode, JSONObject pJSONObject, String pCurrentPositionInTree, MappedField pMappedField,
-								   Map<String, MappedField> pMappingFile) {
+								   Map<String, MappedField> pMappingFile, RecordConversionContext pRecordConversionContext) {
 		//If the mappedField in null then this means it's a path in the XML being parsed that is not in the mapping file.
+		//A rejected record is still converted to the end so the dead letter lists every failure in it, its JSON is
+		//thrown away afterwards.
 		if (pMappedField == null) {
 			return;
 		}
@@ -97,25 +266,95 @@ public class XmlToJsonService {
 		if (ARRAY.equals(pMappedField.getXmlType())) {
 			if (pJSONObject.containsKey(pMappedField.getJsonName())) {
 				buildJsonArrayFromNode(pNode,
-						(JSONArray) pJSONObject.get(pMappedField.getJsonName()), pCurrentPositionInTree, pMappingFile);
+						(JSONArray) pJSONObject.get(pMappedField.getJsonName()), pCurrentPositionInTree, pMappingFile,
+						pRecordConversionContext);
 			} else {
 				//If a JSONArray isn't already created for the current JSON field, create a new one and put it onto the
 				//JSONObject.
 				final JSONArray jsonArray = new JSONArray();
 				pJSONObject.put(pMappedField.getJsonName(), jsonArray);
-				buildJsonArrayFromNode(pNode, jsonArray, pCurrentPositionInTree, pMappingFile);
+				buildJsonArrayFromNode(pNode, jsonArray, pCurrentPositionInTree, pMappingFile, pRecordConversionContext);
 			}
 		} else if (ELEMENT.equals(pMappedField.getXmlType())) {
 			pJSONObject.put(pMappedField.getJsonName(),
-					dataConversionService.convertFieldValue(pMappedField.getXmlDataType(),
-							pMappedField.getJsonDataType(), pNode.getTextContent()));
+					convertElementValue(pNode, pCurrentPositionInTree, pMappedField, pRecordConversionContext));
 		} else if (OBJECT.equals(pMappedField.getXmlType())) {
 			//When the current field is an object then we are going 1 level deeper in the tree. This is going to create
 			//the child JSON node and populate it with all of the applicable fields.
 			final JSONObject childJSONObject = new JSONObject();
 			pJSONObject.put(pMappedField.getJsonName(), childJSONObject);
 			buildJsonObjectFromNode(pNode, childJSONObject,
-					pCurrentPositionInTree, pMappingFile);
+					pCurrentPositionInTree, pMappingFile, pRecordConversionContext);
+		}
+	}
+
+	/**
+	 * Converts the value of an <element></element> and records slow or failed conversions to Java Flight Recorder.
+	 * When the value fails to convert, the {@link ConversionErrorPolicy} of the field decides what is written.
+	 * Results are memoized through the {@link FieldConversionCache} of the field when it has one. Package private so
+	 * the allocation tests can measure the per field path on its own.
+	 * @param pNode The current node which is an <element></element>.
+	 * @param pCurrentPositionInTree The current position in the XML tree that we are parsing.
+	 * @param pMappedField The {@link MappedField} for the element.
+	 * @param pRecordConversionContext The {@link RecordConversionContext} for the record being converted.
+	 * @return The converted object.
+	 */
+	Object convertElementValue(Node pNode, String pCurrentPositionInTree, MappedField pMappedField,
+							   RecordConversionContext pRecordConversionContext) {
+		final String value = pNode.getTextContent();
+		final FieldConversionEvent fieldConversionEvent = new FieldConversionEvent();
+		fieldConversionEvent.begin();
+		final FieldConversionCache conversionCache = pMappedField.getConversionCache();
+		ConversionResult conversionResult = conversionCache == null ? null : conversionCache.get(value);
+		if (conversionResult == null) {
+			conversionResult = dataConversionService.convertField(pMappedField.getXmlDataType(),
+					pMappedField.getJsonDataType(), value);
+			if (conversionCache != null) {
+				conversionCache.put(value, conversionResult);
+			}
+		}
+		fieldConversionEvent.end();
+
+		if (fieldConversionEvent.shouldCommit()) {
+			fieldConversionEvent.mappingName = pRecordConversionContext.getMappingName();
+			fieldConversionEvent.jsonName = pMappedField.getJsonName();
+			fieldConversionEvent.xmlDataType = pMappedField.getXmlDataType();
+			fieldConversionEvent.jsonDataType = pMappedField.getJsonDataType();
+			fieldConversionEvent.commit();
+		}
+
+		if (conversionResult.isSuccess()) {
+			return conversionResult.getValue();
+		}
+
+		final FieldConversionFailedEvent fieldConversionFailedEvent = new FieldConversionFailedEvent();
+		if (fieldConversionFailedEvent.shouldCommit()) {
+			fieldConversionFailedEvent.mappingName = pRecordConversionContext.getMappingName();
+			fieldConversionFailedEvent.jsonName = pMappedField.getJsonName();
+			fieldConversionFailedEvent.xmlDataType = pMappedField.getXmlDataType();
+			fieldConversionFailedEvent.jsonDataType = pMappedField.getJsonDataType();
+			fieldConversionFailedEvent.rawValueLength = value == null ? 0 : value.length();
+			fieldConversionFailedEvent.errorCode = conversionResult.getError().name();
+			fieldConversionFailedEvent.commit();
+		}
+
+		final String xmlPath = "".equals(pCurrentPositionInTree)
+				? pNode.getNodeName()
+				: pCurrentPositionInTree + PERIOD + pNode.getNodeName();
+		pRecordConversionContext.addFailure(
+				new ConversionFailure(xmlPath, pMappedField.getJsonName(), value, conversionResult.getError()));
+
+		switch (pMappedField.getConversionErrorPolicy()) {
+			case DEFAULT:
+				return pMappedField.getConvertedDefaultValue();
+			case RAW:
+				return value;
+			case REJECT:
+				pRecordConversionContext.reject();
+				return null;
+			case NULL:
+			default:
+				return null;
 		}
 	}
 
@@ -139,9 +378,10 @@ public class XmlToJsonService {
 	 * @param pJsonArray The {@link JSONArray} to start adding fields to.
 	 * @param pCurrentPositionInTree The current position in the XML tree that we are parsing.
 	 * @param pMappingFile The mapping file for the current XML being parsed.
+	 * @param pRecordConversionContext The {@link RecordConversionContext} for the record being converted.
 	 */
 	private void buildJsonArrayFromNode(Node pNode, JSONArray pJsonArray, String pCurrentPositionInTree,
-										Map<String, MappedField> pMappingFile) {
+										Map<String, MappedField> pMappingFile, RecordConversionContext pRecordConversionContext) {
 		final JSONObject jsonObject = new JSONObject();
 		final String newPositionInTree;
 		if ("".equals(pCurrentPositionInTree)) {
@@ -155,7 +395,7 @@ public class XmlToJsonService {
 		for (int i = 0 ; i < pNode.getChildNodes().getLength(); i++) {
 			final Node node = pNode.getChildNodes().item(i);
 			final MappedField mappedField = pMappingFile.get(newPositionInTree + PERIOD + node.getNodeName());
-			buildJsonFromNode(node, jsonObject, newPositionInTree, mappedField, pMappingFile);
+			buildJsonFromNode(node, jsonObject, newPositionInTree, mappedField, pMappingFile, pRecordConversionContext);
 		}
 	}
 
@@ -173,9 +413,10 @@ public class XmlToJsonService {
 	 * @param pJsonObject The {@link JSONObject} to start adding fields to.
 	 * @param pCurrentPositionInTree The current position in the XML tree that we are parsing.
 	 * @param pMappingFile The mapping file for the current XML being parsed.
+	 * @param pRecordConversionContext The {@link RecordConversionContext} for the record being converted.
 	 */
 	private void buildJsonObjectFromNode(Node pNode, JSONObject pJsonObject, String pCurrentPositionInTree,
-										 Map<String, MappedField> pMappingFile) {
+										 Map<String, MappedField> pMappingFile, RecordConversionContext pRecordConversionContext) {
 		final String newPositionInTree;
 
 		if ("".equals(pCurrentPositionInTree)) {
@@ -187,7 +428,7 @@ public class XmlToJsonService {
 		for (int i = 0 ; i < pNode.getChildNodes().getLength(); i++) {
 			final Node node = pNode.getChildNodes().item(i);
 			final MappedField mappedField = pMappingFile.get(newPositionInTree + PERIOD + node.getNodeName());
-			buildJsonFromNode(node, pJsonObject, newPositionInTree, mappedField, pMappingFile);
+			buildJsonFromNode(node, pJsonObject, newPositionInTree, mappedField, pMappingFile, pRecordConversionContext);
 		}
 	}
 }
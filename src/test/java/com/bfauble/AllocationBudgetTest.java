@@ -0,0 +1,192 @@
+package com.bfauble;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocation regression tests for the reference mapping. Allocated bytes are read from the
+ * {@link com.sun.management.ThreadMXBean} counters for the current thread, divided by the number of records converted,
+ * and compared against a budget. If one of these starts failing, profile the change before raising the budget.
+ *
+ * @author Bryan Fauble
+ */
+public class AllocationBudgetTest {
+	private static final File MAPPING_FILE = new File("src/main/resources/mapping.xml");
+	private static final File INPUT_FILE = new File("src/main/resources/xmlInputFile.xml");
+	//Number of <patient></patient> records in the reference input file.
+	private static final int RECORDS_PER_DOCUMENT = 2;
+	private static final String RECORD_PATH = "patient";
+	private static final int WARMUP_ITERATIONS = 2_000;
+	private static final int MEASURED_ITERATIONS = 2_000;
+	//Budgets per java.specification.version, about 1.5x what was measured on that JDK. Allocation differs between JDKs,
+	//so the tests are skipped on a JDK without a measured budget. Re-measure rather than bump them when they fail.
+	private static final Map<String, Budget> BUDGETS = new HashMap<>();
+
+	static {
+		//Measured on Temurin 8u392: up to 3,773 bytes per record for the document, 688 for the field conversions.
+		BUDGETS.put("1.8", new Budget(5_660, 1_032));
+		//Measured on Temurin 11.0.21: up to 2,972 bytes per record for the document, 544 for the field conversions.
+		BUDGETS.put("11", new Budget(4_458, 816));
+	}
+
+	private com.sun.management.ThreadMXBean threadMXBean;
+	private XmlToJsonService xmlToJsonService;
+	private Budget budget;
+
+	/**
+	 * Setup for unit testing. Skips the tests on JVMs that do not support measuring thread allocation, or that have no
+	 * measured budget.
+	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
+	 */
+	@Before
+	public void setup() throws ParserConfigurationException {
+		budget = BUDGETS.get(System.getProperty("java.specification.version"));
+		Assume.assumeTrue(budget != null);
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+		threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+		xmlToJsonService = new XmlToJsonService();
+	}
+
+	/**
+	 * Allocation budget for {@link XmlToJsonService#buildJson} with the reference mapping. The mapping is loaded and the
+	 * input parsed once, so only the conversion of the records and the writing of the JSON are measured.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
+	 */
+	@Test
+	public void buildJson_referenceMapping_withinAllocationBudget()
+			throws SAXException, IOException, ParserConfigurationException {
+		final Map<String, MappedField> mapping = xmlToJsonService.loadMapping(MAPPING_FILE);
+		final Document inputDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(INPUT_FILE);
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			xmlToJsonService.buildJson(mapping, inputDocument, MAPPING_FILE.getName(), new DocumentConversionEvent());
+		}
+
+		final long startingBytes = currentThreadAllocatedBytes();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			xmlToJsonService.buildJson(mapping, inputDocument, MAPPING_FILE.getName(), new DocumentConversionEvent());
+		}
+		final long bytesPerRecord
+				= (currentThreadAllocatedBytes() - startingBytes) / ((long) MEASURED_ITERATIONS * RECORDS_PER_DOCUMENT);
+
+		Assert.assertTrue(String.format("Allocated %d bytes per record, budget is %d", bytesPerRecord,
+				budget.documentBytesPerRecord), bytesPerRecord <= budget.documentBytesPerRecord);
+	}
+
+	/**
+	 * Allocation budget for {@link XmlToJsonService#convertElementValue} over every field of a record of the reference
+	 * mapping. This is the per field path a document takes, including the Java Flight Recorder event, the conversion
+	 * error policy and the {@link FieldConversionCache}, without the cost of parsing the XML.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
+	 */
+	@Test
+	public void convertElementValue_referenceMapping_withinAllocationBudget()
+			throws SAXException, IOException, ParserConfigurationException {
+		final Map<String, MappedField> mapping = xmlToJsonService.loadMapping(MAPPING_FILE);
+		final Element rootXmlElement = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(INPUT_FILE)
+				.getDocumentElement();
+		//The element nodes and their mapped fields, one list per record. Looked up once so only the conversion is measured.
+		final List<List<Node>> recordElementNodes = new ArrayList<>();
+		final List<List<MappedField>> recordMappedFields = new ArrayList<>();
+		for (int i = 0; i < rootXmlElement.getChildNodes().getLength(); i++) {
+			final Node recordNode = rootXmlElement.getChildNodes().item(i);
+			if (!RECORD_PATH.equals(recordNode.getNodeName())) {
+				continue;
+			}
+
+			final List<Node> elementNodes = new ArrayList<>();
+			final List<MappedField> mappedFields = new ArrayList<>();
+			for (int j = 0; j < recordNode.getChildNodes().getLength(); j++) {
+				final Node node = recordNode.getChildNodes().item(j);
+				final MappedField mappedField = mapping.get(RECORD_PATH + "." + node.getNodeName());
+				if (mappedField != null) {
+					elementNodes.add(node);
+					mappedFields.add(mappedField);
+				}
+			}
+			recordElementNodes.add(elementNodes);
+			recordMappedFields.add(mappedFields);
+		}
+		Assert.assertEquals(RECORDS_PER_DOCUMENT, recordElementNodes.size());
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			convertRecords(recordElementNodes, recordMappedFields);
+		}
+
+		final long startingBytes = currentThreadAllocatedBytes();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			convertRecords(recordElementNodes, recordMappedFields);
+		}
+		final long bytesPerRecord
+				= (currentThreadAllocatedBytes() - startingBytes) / ((long) MEASURED_ITERATIONS * RECORDS_PER_DOCUMENT);
+
+		Assert.assertTrue(String.format("Allocated %d bytes per record, budget is %d", bytesPerRecord,
+				budget.fieldConversionBytesPerRecord), bytesPerRecord <= budget.fieldConversionBytesPerRecord);
+	}
+
+	/**
+	 * Converts every mapped element of the reference input, with one {@link RecordConversionContext} per record the way
+	 * {@link XmlToJsonService} does.
+	 * @param pRecordElementNodes The element nodes, one list per record.
+	 * @param pRecordMappedFields The {@link MappedField} of each element node, one list per record.
+	 */
+	private void convertRecords(List<List<Node>> pRecordElementNodes, List<List<MappedField>> pRecordMappedFields) {
+		for (int i = 0; i < pRecordElementNodes.size(); i++) {
+			final RecordConversionContext recordConversionContext = new RecordConversionContext(MAPPING_FILE.getName());
+			final List<Node> elementNodes = pRecordElementNodes.get(i);
+			final List<MappedField> mappedFields = pRecordMappedFields.get(i);
+			for (int j = 0; j < elementNodes.size(); j++) {
+				Assert.assertNotNull(xmlToJsonService.convertElementValue(elementNodes.get(j), RECORD_PATH,
+						mappedFields.get(j), recordConversionContext));
+			}
+		}
+	}
+
+	/**
+	 * @return The total bytes allocated by the current thread so far.
+	 */
+	private long currentThreadAllocatedBytes() {
+		return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Allocation budgets for a single JDK.
+	 */
+	private static final class Budget {
+		private final long documentBytesPerRecord;
+		private final long fieldConversionBytesPerRecord;
+
+		/**
+		 * Constructor.
+		 * @param pDocumentBytesPerRecord Bytes per record allowed for converting a document.
+		 * @param pFieldConversionBytesPerRecord Bytes per record allowed for converting the fields of a record.
+		 */
+		private Budget(long pDocumentBytesPerRecord, long pFieldConversionBytesPerRecord) {
+			documentBytesPerRecord = pDocumentBytesPerRecord;
+			fieldConversionBytesPerRecord = pFieldConversionBytesPerRecord;
+		}
+	}
+}
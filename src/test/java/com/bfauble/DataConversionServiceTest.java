@@ -1,5 +1,6 @@
 package com.bfauble;
 
+import org.joda.time.DateTimeZone;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -44,6 +45,42 @@ public class DataConversionServiceTest {
 		Assert.assertNull(dataConversionService.convertFieldValue("sTrInG", "iNtEgEr", "asdf"));
 	}
 
+	@Test
+	public void convertField_stringToIntegerInvalidValue_returnsInvalidInteger() {
+		final ConversionResult conversionResult = dataConversionService.convertField("string", "integer", "jfghj444bbb");
+		Assert.assertFalse(conversionResult.isSuccess());
+		Assert.assertEquals(ConversionError.INVALID_INTEGER, conversionResult.getError());
+		Assert.assertEquals(ConversionError.INVALID_INTEGER, dataConversionService.convertField("string", "integer", "2147483648").getError());
+		Assert.assertEquals(ConversionError.INVALID_INTEGER, dataConversionService.convertField("string", "integer", "-").getError());
+	}
+
+	@Test
+	public void convertField_stringToIntegerLimits_returnsInteger() {
+		Assert.assertEquals(Integer.MAX_VALUE, dataConversionService.convertField("string", "integer", "2147483647").getValue());
+		Assert.assertEquals(Integer.MIN_VALUE, dataConversionService.convertField("string", "integer", "-2147483648").getValue());
+		Assert.assertEquals(5, dataConversionService.convertField("string", "integer", "+5").getValue());
+	}
+
+	@Test
+	public void convertField_birthdayInvalidValue_returnsInvalidDate() {
+		Assert.assertEquals(ConversionError.INVALID_DATE, dataConversionService.convertField("BIRTHDAYMM/DD/YYYY", "AGECALCULATION", "02/30/1990").getError());
+		Assert.assertEquals(ConversionError.INVALID_DATE, dataConversionService.convertField("BIRTHDAYMM/DD/YYYY", "AGECALCULATION", "13/01/1990").getError());
+		Assert.assertEquals(ConversionError.INVALID_DATE, dataConversionService.convertField("BIRTHDAYMM/DD/YYYY", "AGECALCULATION", "notADate").getError());
+		Assert.assertTrue(dataConversionService.convertField("BIRTHDAYMM/DD/YYYY", "AGECALCULATION", "02/29/1992").isSuccess());
+	}
+
+	@Test
+	public void convertField_birthdayMidnightInDaylightSavingGap_returnsAge() {
+		final DateTimeZone defaultZone = DateTimeZone.getDefault();
+		try {
+			//Clocks in Sao Paulo jumped from midnight to 1am on October 15th 2017.
+			DateTimeZone.setDefault(DateTimeZone.forID("America/Sao_Paulo"));
+			Assert.assertTrue(dataConversionService.convertField("BIRTHDAYMM/DD/YYYY", "AGECALCULATION", "10/15/2017").isSuccess());
+		} finally {
+			DateTimeZone.setDefault(defaultZone);
+		}
+	}
+
 	@Test
 	public void convertFieldValue_genderAbbrevToGenderFull_returnsFullGender() {
 		Assert.assertEquals("male", dataConversionService.convertFieldValue("GENDERABBREV", "GENDERFULL", "m"));
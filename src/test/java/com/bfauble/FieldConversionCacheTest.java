@@ -0,0 +1,92 @@
+package com.bfauble;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit testing for {@link FieldConversionCache}.
+ *
+ * @author Bryan Fauble
+ */
+public class FieldConversionCacheTest {
+
+	private final DataConversionService dataConversionService = new DataConversionService();
+
+	@Test
+	public void get_lowCardinalityField_enablesCache() {
+		final FieldConversionCache fieldConversionCache = new FieldConversionCache("GENDERABBREV", "GENDERFULL");
+		final String[] values = {"m", "f"};
+
+		for (int i = 0; i < FieldConversionCache.WINDOW_SIZE * 2; i++) {
+			convert(fieldConversionCache, "GENDERABBREV", "GENDERFULL", values[i % values.length]);
+		}
+
+		Assert.assertEquals(FieldConversionCache.State.ENABLED, fieldConversionCache.getState());
+		Assert.assertEquals(2, fieldConversionCache.getSize());
+		Assert.assertEquals(2, fieldConversionCache.getMissCount());
+		Assert.assertEquals("female", fieldConversionCache.get("f").getValue());
+		Assert.assertTrue(fieldConversionCache.getHitRate() > 0.99);
+	}
+
+	@Test
+	public void get_highCardinalityField_disablesCache() {
+		final FieldConversionCache fieldConversionCache = new FieldConversionCache("STRING", "INTEGER");
+
+		for (int i = 0; i < FieldConversionCache.WINDOW_SIZE; i++) {
+			convert(fieldConversionCache, "STRING", "INTEGER", String.valueOf(i));
+		}
+
+		Assert.assertEquals(FieldConversionCache.State.DISABLED, fieldConversionCache.getState());
+		Assert.assertEquals(0, fieldConversionCache.getSize());
+		Assert.assertNull(fieldConversionCache.get("1"));
+		Assert.assertEquals(FieldConversionCache.WINDOW_SIZE, fieldConversionCache.getMissCount());
+	}
+
+	@Test
+	public void put_moreValuesThanMaxEntries_staysBounded() {
+		final FieldConversionCache fieldConversionCache = new FieldConversionCache("STRING", "INTEGER");
+
+		for (int i = 0; i < FieldConversionCache.MAX_ENTRIES * 2; i++) {
+			fieldConversionCache.put(String.valueOf(i), ConversionResult.success(i));
+		}
+
+		Assert.assertEquals(FieldConversionCache.MAX_ENTRIES, fieldConversionCache.getSize());
+	}
+
+	@Test
+	public void get_failedConversion_cachesFailure() {
+		final FieldConversionCache fieldConversionCache = new FieldConversionCache("STRING", "INTEGER");
+
+		convert(fieldConversionCache, "STRING", "INTEGER", "notANumber");
+
+		Assert.assertEquals(ConversionError.INVALID_INTEGER, fieldConversionCache.get("notANumber").getError());
+	}
+
+	@Test
+	public void isFor_otherDataTypes_returnsFalse() {
+		final FieldConversionCache fieldConversionCache = new FieldConversionCache("STRING", "INTEGER");
+
+		Assert.assertTrue(fieldConversionCache.isFor("STRING", "INTEGER"));
+		Assert.assertFalse(fieldConversionCache.isFor("STRING", "STRING"));
+		Assert.assertFalse(fieldConversionCache.isFor("STATEFULL", "INTEGER"));
+	}
+
+	/**
+	 * Convert a value through the cache the same way {@link XmlToJsonService} does.
+	 * @param pFieldConversionCache The {@link FieldConversionCache}.
+	 * @param pStartingDataType The starting data type.
+	 * @param pEndingDataType The ending data type.
+	 * @param pValue The value to convert.
+	 * @return The {@link ConversionResult}.
+	 */
+	private ConversionResult convert(FieldConversionCache pFieldConversionCache, String pStartingDataType,
+									 String pEndingDataType, String pValue) {
+		ConversionResult conversionResult = pFieldConversionCache.get(pValue);
+		if (conversionResult == null) {
+			conversionResult = dataConversionService.convertField(pStartingDataType, pEndingDataType, pValue);
+			pFieldConversionCache.put(pValue, conversionResult);
+		}
+		return conversionResult;
+	}
+
+}
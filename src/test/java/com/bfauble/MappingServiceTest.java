@@ -47,4 +47,60 @@ public class MappingServiceTest {
 		Assert.assertEquals("dishLocationOfCreationJson", dishCreationLocation.getJsonName());
 	}
 
+	/**
+	 * Unit test for {@link MappingService#buildMappingFile(File)}. Confirms the optional conversion error policy and
+	 * default value are read, and fields without them default to {@link ConversionErrorPolicy#NULL}.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 */
+	@Test
+	public void buildMappingFile_conversionErrorMapping_policiesBuilt() throws SAXException, IOException {
+		final Map<String, MappedField> mappedFieldMap
+				= mappingService.buildMappingFile(new File("src/main/resources/testing/testingConversionErrorMapping.xml"));
+
+		Assert.assertEquals(ConversionErrorPolicy.REJECT, mappedFieldMap.get("patient.id").getConversionErrorPolicy());
+		Assert.assertEquals(ConversionErrorPolicy.DEFAULT, mappedFieldMap.get("patient.visits").getConversionErrorPolicy());
+		Assert.assertEquals("0", mappedFieldMap.get("patient.visits").getDefaultValue());
+		Assert.assertEquals(0, mappedFieldMap.get("patient.visits").getConvertedDefaultValue());
+		Assert.assertEquals(ConversionErrorPolicy.RAW, mappedFieldMap.get("patient.roomNumber").getConversionErrorPolicy());
+		Assert.assertEquals(ConversionErrorPolicy.NULL, mappedFieldMap.get("patient.floor").getConversionErrorPolicy());
+	}
+
+	/**
+	 * Unit test for {@link MappingService#buildMappingFile(File)}. A misspelled conversion error policy fails the load
+	 * and names the attribute, the field and the allowed values.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 */
+	@Test
+	public void buildMappingFile_invalidPolicy_throwsIllegalArgumentException() throws SAXException, IOException {
+		try {
+			mappingService.buildMappingFile(new File("src/main/resources/testing/testingInvalidPolicyMapping.xml"));
+			Assert.fail("Expected the mapping to fail to load");
+		} catch (IllegalArgumentException ex) {
+			Assert.assertTrue(ex.getMessage().contains("onConversionError"));
+			Assert.assertTrue(ex.getMessage().contains("rejct"));
+			Assert.assertTrue(ex.getMessage().contains("patientid"));
+			Assert.assertTrue(ex.getMessage().contains("[null, default, raw, reject]"));
+		}
+	}
+
+	/**
+	 * Unit test for {@link MappingService#buildMappingFile(File)}. A default value that does not convert into the JSON
+	 * data type fails the load.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 */
+	@Test
+	public void buildMappingFile_invalidDefaultValue_throwsIllegalArgumentException() throws SAXException, IOException {
+		try {
+			mappingService.buildMappingFile(new File("src/main/resources/testing/testingInvalidDefaultMapping.xml"));
+			Assert.fail("Expected the mapping to fail to load");
+		} catch (IllegalArgumentException ex) {
+			Assert.assertTrue(ex.getMessage().contains("defaultValue"));
+			Assert.assertTrue(ex.getMessage().contains("n/a"));
+			Assert.assertTrue(ex.getMessage().contains("visits"));
+		}
+	}
+
 }
@@ -0,0 +1,100 @@
+package com.bfauble;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Unit testing for {@link RateLimitedLogger}.
+ *
+ * @author Bryan Fauble
+ */
+public class RateLimitedLoggerTest {
+	private static final long INTERVAL_SECONDS = 10;
+
+	private final List<LogRecord> logRecords = new ArrayList<>();
+	private long nowNanos;
+	private RateLimitedLogger rateLimitedLogger;
+
+	/**
+	 * Setup for unit testing. Captures everything logged to a logger that does not write anywhere else.
+	 */
+	@Before
+	public void setup() {
+		final Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.ALL);
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord pLogRecord) {
+				logRecords.add(pLogRecord);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+
+		nowNanos = 0;
+		rateLimitedLogger = new RateLimitedLogger(logger, DataConversionService.class, INTERVAL_SECONDS, TimeUnit.SECONDS,
+				() -> nowNanos);
+	}
+
+	@Test
+	public void warning_firstMessage_logsWithSource() {
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "abc");
+
+		Assert.assertEquals(1, logRecords.size());
+		Assert.assertEquals(Level.WARNING, logRecords.get(0).getLevel());
+		Assert.assertEquals("Failed to parse integer from string: abc", logRecords.get(0).getMessage());
+		Assert.assertEquals(DataConversionService.class.getName(), logRecords.get(0).getSourceClassName());
+		Assert.assertEquals("convertStringToInteger", logRecords.get(0).getSourceMethodName());
+	}
+
+	@Test
+	public void warning_repeatedWithinInterval_suppressed() {
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "abc");
+		nowNanos += TimeUnit.SECONDS.toNanos(INTERVAL_SECONDS) - 1;
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "def");
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "ghi");
+
+		Assert.assertEquals(1, logRecords.size());
+	}
+
+	@Test
+	public void warning_afterInterval_logsSuppressedCount() {
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "abc");
+		for (int i = 0; i < 3; i++) {
+			rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "def");
+		}
+		nowNanos += TimeUnit.SECONDS.toNanos(INTERVAL_SECONDS);
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "ghi");
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "jkl");
+
+		Assert.assertEquals(2, logRecords.size());
+		Assert.assertEquals("Failed to parse integer from string: ghi (3 similar messages suppressed)",
+				logRecords.get(1).getMessage());
+	}
+
+	@Test
+	public void warning_differentFormats_loggedSeparately() {
+		rateLimitedLogger.warning("convertStringToInteger", "Failed to parse integer from string: %s", "abc");
+		rateLimitedLogger.warning("convertBirthdayMM_DD_YYYYToAge", "Failed to parse MM/DD/YYYY date from string: %s", "abc");
+
+		Assert.assertEquals(2, logRecords.size());
+		Assert.assertEquals("convertBirthdayMM_DD_YYYYToAge", logRecords.get(1).getSourceMethodName());
+	}
+
+}
@@ -1,13 +1,21 @@
 package com.bfauble;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.io.StringWriter;
+import java.util.Map;
 
 /**
  * Unit tests for {@link XmlToJsonService}.
@@ -15,6 +23,9 @@ import java.io.IOException;
  * @author Bryan Fauble
  */
 public class XmlToJsonServiceTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private XmlToJsonService xmlToJsonService;
 
 	/**
@@ -39,4 +50,104 @@ public class XmlToJsonServiceTest {
 		Assert.assertEquals("{\"bookTitleJson\":\"Bryan's great book of food - Part 2 the electric boogalo\",\"dishJson\":[{\"dishCreatorJson\":\"The burrito man\",\"ingredientsJson\":[{\"ingredientQuantityJson\":\"1 Pound\",\"ingredientCommentJson\":\"Season the meat while cooking or use a marinade before cooking.\",\"ingredientNameJson\":\"Chicken\"},{\"ingredientQuantityJson\":\"1 Can\",\"ingredientCommentJson\":\"Try adding a small amount of lime juice.\",\"ingredientNameJson\":\"Beans\"},{\"ingredientQuantityJson\":\"1 Head\",\"ingredientCommentJson\":\"Cut up lettuce into small strips.\",\"ingredientNameJson\":\"Lettuce\"}],\"dishCreationJson\":{\"dishLocationOfCreationJson\":\"Earth\",\"dishDateOfCreationJson\":\"19000101\"},\"dishTitleJson\":\"Chicken Burritos\",\"localRestaurantSellingDishJson\":[{\"restaurantJson\":\"Panchos\",\"addressJson\":{\"addressStateJson\":\"MI\",\"addressLine1Json\":\"123 Right Around The Corner\"}},{\"restaurantJson\":\"Chipotle\",\"addressJson\":{\"addressStateJson\":\"MI\",\"addressLine1Json\":\"Across the street from the one that closed\"}}]},{\"dishCreatorJson\":\"The Curry man\",\"ingredientsJson\":[{\"ingredientQuantityJson\":\"1 Pound\",\"ingredientCommentJson\":\"Cook thoroughly to make sure there is no raw meat.\",\"ingredientNameJson\":\"Chicken\"},{\"ingredientQuantityJson\":\"1 (32oz) Can\",\"ingredientNameJson\":\"Tomato puree\"},{\"ingredientQuantityJson\":\"1 Cup\",\"ingredientNameJson\":\"Yogurt\"},{\"ingredientQuantityJson\":\"1/3 Cup\",\"ingredientCommentJson\":\"Curry powder, Cumin, Coriander, Cayenne pepper, Garam Masala, Tumeric\",\"ingredientNameJson\":\"Spices\"}],\"dishCreationJson\":{\"dishLocationOfCreationJson\":\"Earth\",\"dishDateOfCreationJson\":\"19000101\"},\"dishTitleJson\":\"Spicy Curry\",\"localRestaurantSellingDishJson\":[{\"restaurantJson\":\"Grill of india\",\"addressJson\":{\"addressStateJson\":\"MI\",\"addressLine1Json\":\"South Lansing\"}}]}],\"authorJson\":\"Bryan Fauble\"}",
 				json);
 	}
+
+	/**
+	 * Unit testing {@link XmlToJsonService#buildXmlToJson(File, File)}) with values that fail to convert. Each
+	 * {@link ConversionErrorPolicy} is applied and the rejected record is written to the {@link DeadLetterSink}.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 * @throws ParserConfigurationException {@link ParserConfigurationException}.
+	 */
+	@Test
+	public void buildXmlToJson_conversionErrors_appliesPolicies() throws SAXException, IOException, ParserConfigurationException {
+		final ObjectMapper objectMapper = new ObjectMapper();
+		final StringWriter deadLetters = new StringWriter();
+		final XmlToJsonService deadLetterXmlToJsonService = new XmlToJsonService(new DeadLetterSink(deadLetters));
+
+		final JsonNode json = objectMapper.readTree(deadLetterXmlToJsonService.buildXmlToJson(
+				new File("src/main/resources/testing/testingConversionErrorMapping.xml"),
+				new File("src/main/resources/testing/testConversionErrorInputFile.xml")));
+
+		Assert.assertEquals(2, json.size());
+		Assert.assertEquals(1234, json.get(0).get("patientid").asInt());
+		Assert.assertEquals(0, json.get(0).get("visits").asInt());
+		Assert.assertEquals("12B", json.get(0).get("roomNumber").asText());
+		Assert.assertTrue(json.get(0).get("floor").isNull());
+		Assert.assertEquals(5678, json.get(1).get("patientid").asInt());
+		Assert.assertEquals(9, json.get(1).get("roomNumber").asInt());
+
+		final String[] deadLetterLines = deadLetters.toString().split("\n");
+		Assert.assertEquals(1, deadLetterLines.length);
+		final JsonNode deadLetter = objectMapper.readTree(deadLetterLines[0]);
+		Assert.assertEquals("patient", deadLetter.get("record").asText());
+		Assert.assertEquals("patient.id", deadLetter.get("values").get(0).get("path").asText());
+		Assert.assertEquals("notAnId", deadLetter.get("values").get(0).get("value").asText());
+		Assert.assertEquals("Jane Smith", deadLetter.get("values").get(1).get("value").asText());
+		Assert.assertEquals("INVALID_INTEGER", deadLetter.get("errors").get(0).get("error").asText());
+		Assert.assertEquals("patient.id", deadLetter.get("errors").get(0).get("path").asText());
+		Assert.assertEquals(2, deadLetter.get("errors").size());
+		Assert.assertEquals("patient.visits", deadLetter.get("errors").get(1).get("path").asText());
+		Assert.assertEquals("several", deadLetter.get("errors").get(1).get("value").asText());
+		Assert.assertEquals("INVALID_INTEGER", deadLetter.get("errors").get(1).get("error").asText());
+	}
+
+	/**
+	 * Unit testing {@link XmlToJsonService#getFieldConversionCaches()}. Every cacheable element gets a cache, the age
+	 * calculation depends on todays date so it does not. A relative and an absolute path to the same mapping share
+	 * their caches.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 */
+	@Test
+	public void getFieldConversionCaches_referenceMapping_cachesPerField() throws SAXException, IOException {
+		final File mappingFile = new File("src/main/resources/mapping.xml");
+		xmlToJsonService.buildXmlToJson(mappingFile, new File("src/main/resources/xmlInputFile.xml"));
+		xmlToJsonService.buildXmlToJson(mappingFile.getAbsoluteFile(), new File("src/main/resources/xmlInputFile.xml"));
+
+		final Map<String, FieldConversionCache> fieldConversionCaches = xmlToJsonService.getFieldConversionCaches();
+		final String mappingPath = mappingFile.getCanonicalPath();
+		final FieldConversionCache genderCache = fieldConversionCaches.get(mappingPath + ":patient.gender");
+		Assert.assertEquals(4, fieldConversionCaches.size());
+		Assert.assertEquals(2, genderCache.getHitCount());
+		Assert.assertEquals(2, genderCache.getMissCount());
+		Assert.assertTrue(fieldConversionCaches.containsKey(mappingPath + ":patient.id"));
+		Assert.assertFalse(fieldConversionCaches.containsKey(mappingPath + ":patient.dateOfBirth"));
+	}
+
+	/**
+	 * Unit testing {@link XmlToJsonService#buildXmlToJson(File, File)}) when the mapping file is edited between two
+	 * documents. Values cached under the old data types must not leak into the new output.
+	 * @throws SAXException {@link SAXException}.
+	 * @throws IOException {@link IOException}.
+	 */
+	@Test
+	public void buildXmlToJson_mappingDataTypeChanged_usesNewDataType() throws SAXException, IOException {
+		final File mappingFile = temporaryFolder.newFile("mapping.xml");
+		final File inputFile = new File("src/main/resources/xmlInputFile.xml");
+
+		writeIdMapping(mappingFile, "Integer");
+		Assert.assertEquals("[{\"patientid\":1234},{\"patientid\":5678}]",
+				xmlToJsonService.buildXmlToJson(mappingFile, inputFile));
+
+		writeIdMapping(mappingFile, "String");
+		Assert.assertEquals("[{\"patientid\":\"1234\"},{\"patientid\":\"5678\"}]",
+				xmlToJsonService.buildXmlToJson(mappingFile, inputFile));
+	}
+
+	/**
+	 * Write a mapping with only the patient id, converted from a String into the given JSON data type.
+	 * @param pMappingFile The file to write the mapping to.
+	 * @param pJsonDataType The JSON data type of the id.
+	 * @throws IOException {@link IOException}.
+	 */
+	private void writeIdMapping(File pMappingFile, String pJsonDataType) throws IOException {
+		try (Writer writer = new FileWriter(pMappingFile)) {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+					+ "<root>\n"
+					+ "    <array xmlName=\"patient\" jsonName=\"notMapped\" xmlDataType=\"\" jsonDataType=\"\">\n"
+					+ "        <element xmlName=\"id\" jsonName=\"patientid\" xmlDataType=\"String\" jsonDataType=\"" + pJsonDataType + "\"/>\n"
+					+ "    </array>\n"
+					+ "</root>\n");
+		}
+	}
 }